@@ -9,7 +9,7 @@ import gate.annotation.AnnotationImpl;
 import gate.annotation.NodeImpl;
 
 import java.util.Optional;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * A mocked implementation of {@link Annotation} which is missing because there is no test .jar for GATE
@@ -39,6 +39,17 @@ public class MockedAnnotation
         return new Builder();
     }
 
+    /**
+     * Annotations bulk-loaded without features get their {@link FeatureMap} on first access only
+     */
+    @Override
+    public FeatureMap getFeatures() {
+        if (features == null) {
+            features = Factory.newFeatureMap();
+        }
+        return features;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -134,7 +145,7 @@ public class MockedAnnotation
          * @return random number
          */
         private int random() {
-            return new Random(System.nanoTime()).nextInt();
+            return ThreadLocalRandom.current().nextInt();
         }
 
         public Builder valueOf(Annotation annotation) {
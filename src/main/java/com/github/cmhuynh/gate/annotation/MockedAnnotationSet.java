@@ -5,6 +5,7 @@ import gate.annotation.ImmutableAnnotationSetImpl;
 import gate.corpora.DocumentImpl;
 
 import java.util.*;
+import java.util.function.IntFunction;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -30,6 +31,16 @@ public class MockedAnnotationSet
      */
     protected Collection<Annotation> annotations = new ArrayList<>();
 
+    /**
+     * {@link OffsetIndex} of the contained {@link Annotation} by type, built on the first nearest-neighbour or adjacency query
+     */
+    private volatile Map<String, OffsetIndex> offsetIndexByType;
+
+    /**
+     * {@link NodeIndex} of the start and end {@link Node} of the contained {@link Annotation}, built on the first navigation
+     */
+    private volatile NodeIndex nodeIndex;
+
     /**
      * Use {@link Builder} to construct your {@link AnnotationSet} instead
      */
@@ -53,16 +64,16 @@ public class MockedAnnotationSet
                 && annotation.getFeatures().subsumes(constraints);
     }
 
+    /**
+     * Query results are mocked sets as well, so that queries chained on a result are counted by {@link QueryCounter}
+     */
     private AnnotationSet asAnnotationSet(Collection<Annotation> annotations) {
-        if(!annotations.isEmpty()) {
-            return new ImmutableAnnotationSetImpl(document, annotations);
-        } else {
-            return emptyAnnotationSet;
-        }
+        return new MockedAnnotationSet(document, annotations);
     }
 
     @Override
     public AnnotationSet get(String type, FeatureMap constraints) {
+        QueryCounter.increment();
         Predicate<Annotation> filter = typeAndFeatureFilter(type, constraints);
         Collection<Annotation> result = annotations.stream()
                 .filter(filter)
@@ -72,6 +83,7 @@ public class MockedAnnotationSet
 
     @Override
     public AnnotationSet get(String type, Set<? extends Object> featureNames) {
+        QueryCounter.increment();
         Predicate<Annotation> filter = annotation -> annotation.getType().equals(type)
                 && annotation.getFeatures().keySet().containsAll(featureNames);
         Collection<Annotation> result = annotations.stream()
@@ -85,6 +97,7 @@ public class MockedAnnotationSet
 
     @Override
     public AnnotationSet get(String type, FeatureMap constraints, Long offset) {
+        QueryCounter.increment();
         Predicate<Annotation> filter = typeAndFeatureFilter(type, constraints);
         Collection<Annotation> result = getAnnotations(offset).stream()
                 .filter(filter)
@@ -113,12 +126,14 @@ public class MockedAnnotationSet
 
     @Override
     public AnnotationSet get(Long offset) {
+        QueryCounter.increment();
         Collection<Annotation> result = getAnnotations(offset);
         return asAnnotationSet(result);
     }
 
     @Override
     public AnnotationSet get(Long startOffset, Long endOffset) {
+        QueryCounter.increment();
         Predicate<Annotation> filter = filterByOffsets(startOffset, endOffset);
         Collection<Annotation> result = annotations.stream()
                 .filter(filter)
@@ -133,6 +148,7 @@ public class MockedAnnotationSet
 
     @Override
     public AnnotationSet get(String type, Long startOffset, Long endOffset) {
+        QueryCounter.increment();
         Predicate<Annotation> filter = annotation -> annotation.getType().equals(type)
                 && filterByOffsets(startOffset, endOffset).test(annotation);
         Collection<Annotation> result = annotations.stream()
@@ -143,6 +159,7 @@ public class MockedAnnotationSet
 
     @Override
     public AnnotationSet getCovering(String neededType, Long startOffset, Long endOffset) {
+        QueryCounter.increment();
         Predicate<Annotation> filter = annotation -> annotation.getType().equals(neededType)
                 && annotation.getStartNode().getOffset() <= startOffset
                 && annotation.getEndNode().getOffset() >= endOffset;
@@ -154,6 +171,7 @@ public class MockedAnnotationSet
 
     @Override
     public AnnotationSet getContained(Long startOffset, Long endOffset) {
+        QueryCounter.increment();
         Predicate<Annotation> filter = annotation ->
                 annotation.getStartNode().getOffset() >= startOffset
                         && annotation.getEndNode().getOffset() <= endOffset;
@@ -165,6 +183,7 @@ public class MockedAnnotationSet
 
     @Override
     public List<Annotation> inDocumentOrder() {
+        QueryCounter.increment();
         List<Annotation> result = new ArrayList<>(annotations);
         Collections.sort(result, offsetComparator());
         return result;
@@ -172,27 +191,29 @@ public class MockedAnnotationSet
 
     @Override
     public Node firstNode() {
-        return annotations.stream()
-                .collect(Collectors.minBy(offsetComparator()))
-                .map(Annotation::getStartNode)
-                .orElse(null);
+        QueryCounter.increment();
+        return nodeIndex().first();
     }
 
     @Override
     public Node lastNode() {
-        return annotations.stream()
-                .collect(Collectors.maxBy(offsetComparator()))
-                .map(Annotation::getStartNode)
-                .orElse(null);
+        QueryCounter.increment();
+        return nodeIndex().last();
     }
 
     @Override
     public Node nextNode(Node node) {
-        return inDocumentOrder().stream()
-                .filter(annotation -> annotation.getStartNode().getOffset() > node.getOffset())
-                .findFirst()
-                .map(Annotation::getStartNode)
-                .orElse(null);
+        QueryCounter.increment();
+        return nodeIndex().next(node.getOffset());
+    }
+
+    private NodeIndex nodeIndex() {
+        NodeIndex index = nodeIndex;
+        if (index == null) {
+            index = new NodeIndex(annotations);
+            nodeIndex = index;
+        }
+        return index;
     }
 
     @Override
@@ -207,6 +228,7 @@ public class MockedAnnotationSet
 
     @Override
     public Annotation get(Integer id) {
+        QueryCounter.increment();
         Predicate<Annotation> filter = annotation -> annotation.getId().equals(id);
         return annotations.stream()
                 .filter(filter)
@@ -226,6 +248,7 @@ public class MockedAnnotationSet
 
     @Override
     public AnnotationSet get(Set<String> types) {
+        QueryCounter.increment();
         Predicate<Annotation> filter = annotation -> types.contains(annotation.getType());
         Collection<Annotation> result = annotations.stream()
                 .filter(filter)
@@ -235,11 +258,103 @@ public class MockedAnnotationSet
 
     @Override
     public Set<String> getAllTypes() {
+        QueryCounter.increment();
         return annotations.stream()
                 .map(Annotation::getType)
                 .collect(Collectors.toSet());
     }
 
+    private OffsetIndex offsetIndex(String type) {
+        assert type != null : "Type is required";
+
+        Map<String, OffsetIndex> indexByType = offsetIndexByType;
+        if (indexByType == null) {
+            indexByType = annotations.stream()
+                    .collect(Collectors.groupingBy(Annotation::getType,
+                            Collectors.collectingAndThen(Collectors.toList(), OffsetIndex::new)));
+            offsetIndexByType = indexByType;
+        }
+        return indexByType.get(type);
+    }
+
+    /**
+     * Get the annotations of the given type starting exactly at the offset
+     *
+     * @param type   the type
+     * @param offset the offset
+     * @return the {@link AnnotationSet} of matching annotations
+     */
+    public AnnotationSet startingAt(String type, long offset) {
+        QueryCounter.increment();
+        OffsetIndex index = offsetIndex(type);
+        return asAnnotationSet(index != null ? index.startingAt(offset) : emptyList());
+    }
+
+    /**
+     * Get the annotations of the given type ending exactly at the offset
+     *
+     * @param type   the type
+     * @param offset the offset
+     * @return the {@link AnnotationSet} of matching annotations
+     */
+    public AnnotationSet endingAt(String type, long offset) {
+        QueryCounter.increment();
+        OffsetIndex index = offsetIndex(type);
+        return asAnnotationSet(index != null ? index.endingAt(offset) : emptyList());
+    }
+
+    /**
+     * Get the nearest annotations of the given type starting at or after the offset,
+     * e.g. the next <code>Token</code> after the current one is <code>following("Token", token.getEndNode().getOffset())</code>
+     *
+     * @param type   the type
+     * @param offset the offset
+     * @return the {@link AnnotationSet} of the annotations sharing the nearest start offset, empty if there is none
+     */
+    public AnnotationSet following(String type, long offset) {
+        return following(type, offset, Long.MAX_VALUE);
+    }
+
+    /**
+     * Get the nearest annotations of the given type starting at or after the offset, but no further than <code>maxDistance</code>
+     *
+     * @param type        the type
+     * @param offset      the offset
+     * @param maxDistance the maximum distance from the offset to the start of the annotations
+     * @return the {@link AnnotationSet} of the annotations sharing the nearest start offset, empty if there is none
+     */
+    public AnnotationSet following(String type, long offset, long maxDistance) {
+        QueryCounter.increment();
+        OffsetIndex index = offsetIndex(type);
+        return asAnnotationSet(index != null ? index.following(offset, maxDistance) : emptyList());
+    }
+
+    /**
+     * Get the nearest annotations of the given type ending at or before the offset,
+     * e.g. the previous <code>Sentence</code> is <code>preceding("Sentence", token.getStartNode().getOffset())</code>
+     *
+     * @param type   the type
+     * @param offset the offset
+     * @return the {@link AnnotationSet} of the annotations sharing the nearest end offset, empty if there is none
+     */
+    public AnnotationSet preceding(String type, long offset) {
+        return preceding(type, offset, Long.MAX_VALUE);
+    }
+
+    /**
+     * Get the nearest annotations of the given type ending at or before the offset, but no further than <code>maxDistance</code>
+     *
+     * @param type        the type
+     * @param offset      the offset
+     * @param maxDistance the maximum distance from the end of the annotations to the offset
+     * @return the {@link AnnotationSet} of the annotations sharing the nearest end offset, empty if there is none
+     */
+    public AnnotationSet preceding(String type, long offset, long maxDistance) {
+        QueryCounter.increment();
+        OffsetIndex index = offsetIndex(type);
+        return asAnnotationSet(index != null ? index.preceding(offset, maxDistance) : emptyList());
+    }
+
     /**
      * Builder to help construct your {@link AnnotationSet}
      */
@@ -251,15 +366,11 @@ public class MockedAnnotationSet
         /**
          * Collection of {@link Annotation} which this mocked {@link AnnotationSet} contains
          */
-        private List<Annotation> annotations = new ArrayList<>();
-        /**
-         * Internal map of start offset and {@link Node}
-         */
-        private Map<Long, Node> startNodesByOffset = new HashMap<>();
+        private ArrayList<Annotation> annotations = new ArrayList<>();
         /**
-         * Internal map of end offset and {@link Node}
+         * Internal table of offset and {@link Node}, shared with every {@link AnnotationSet} of the same {@link Document}
          */
-        private Map<Long, Node> endNodesByOffset = new HashMap<>();
+        private NodeTable nodes;
 
         private Builder() {
 
@@ -271,14 +382,20 @@ public class MockedAnnotationSet
          * or from an existing {@link AnnotationSet}
          * <p>
          * So you think you can use interface {@link Document}, but GATE throws {@link ClassCastException}
+         * <p>
+         * Supply the document first, before any capacity or annotation, so that their {@link Node} are interned
+         * in the table shared with the other sets of the document. The table keeps every interned offset for as long
+         * as the document is reachable, so use a fresh mocked document per test, or per large fixture
          */
         public Builder withDocument(DocumentImpl document) {
+            assert nodes == null || document == this.document : "Supply the document before adding capacity or annotations";
             this.document = document;
             return this;
         }
 
         /**
-         * Add a {@link Annotation} into this {@link AnnotationSet}
+         * Add a {@link Annotation} into this {@link AnnotationSet}, keeping its id so that {@link AnnotationSet#get(Integer)} finds it.
+         * Its {@link Node} are replaced by the nodes of the document at the same offsets
          *
          * @param annotation the contained annotation
          * @return the builder
@@ -287,16 +404,15 @@ public class MockedAnnotationSet
             assert annotation.getStartNode() != null && annotation.getStartNode().getOffset() != null : "Start offset is required";
             assert annotation.getEndNode() != null && annotation.getEndNode().getOffset() != null : "End offset is required";
 
-            Node start = annotation.getStartNode();
-            Node end = annotation.getEndNode();
-            startNodesByOffset.putIfAbsent(start.getOffset(), start);
-            endNodesByOffset.putIfAbsent(end.getOffset(), end);
-
-            Annotation gateHappyAnnotation = new MockedAnnotation(annotation.getId(),
-                    startNodesByOffset.get(start.getOffset()),
-                    endNodesByOffset.get(end.getOffset()),
-                    annotation.getType(),
-                    annotation.getFeatures());
+            NodeTable nodes = nodes();
+            Annotation gateHappyAnnotation;
+            synchronized (nodes) {
+                gateHappyAnnotation = new MockedAnnotation(annotation.getId(),
+                        nodes.intern(annotation.getStartNode().getOffset()),
+                        nodes.intern(annotation.getEndNode().getOffset()),
+                        annotation.getType(),
+                        annotation.getFeatures());
+            }
             annotations.add(gateHappyAnnotation);
 
             return this;
@@ -313,12 +429,103 @@ public class MockedAnnotationSet
             return this;
         }
 
+        /**
+         * Presize the builder for the expected number of {@link Annotation}, avoiding re-allocation on large bulk loads
+         *
+         * @param capacity the expected number of annotations
+         * @return the builder
+         */
+        public Builder withCapacity(int capacity) {
+            assert capacity >= 0 : "Capacity must not be negative";
+
+            int expected = capacity - annotations.size();
+            annotations.ensureCapacity(capacity);
+            if (expected > 0) {
+                NodeTable nodes = nodes();
+                synchronized (nodes) {
+                    nodes.ensureCapacity(2 * expected);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Bulk-load {@link Annotation} from parallel arrays, in a single pass and without boxing offsets.
+         * The i-th annotation spans <code>starts[i]</code> to <code>ends[i]</code> and has type <code>types[typeIds[i]]</code>
+         *
+         * @param types    the type names, indexed by type id
+         * @param typeIds  the type id of each annotation
+         * @param starts   the start offset of each annotation
+         * @param ends     the end offset of each annotation
+         * @return the builder
+         */
+        public Builder addAnnotations(String[] types, int[] typeIds, long[] starts, long[] ends) {
+            return addAnnotations(types, typeIds, starts, ends, null);
+        }
+
+        /**
+         * Bulk-load {@link Annotation} from parallel arrays, in a single pass and without boxing offsets.
+         * The i-th annotation spans <code>starts[i]</code> to <code>ends[i]</code> and has type <code>types[typeIds[i]]</code>
+         * <p>
+         * Annotation and {@link Node} ids are assigned sequentially per {@link Document} rather than randomly.
+         * Annotation ids are unique among bulk-loaded annotations only, an annotation added one by one keeps its own id
+         *
+         * @param types    the type names, indexed by type id
+         * @param typeIds  the type id of each annotation
+         * @param starts   the start offset of each annotation
+         * @param ends     the end offset of each annotation
+         * @param features optional supplier of the {@link FeatureMap} of the i-th annotation, an empty map is used when <code>null</code>
+         * @return the builder
+         */
+        public Builder addAnnotations(String[] types, int[] typeIds, long[] starts, long[] ends,
+                                      IntFunction<FeatureMap> features) {
+            assert types != null && typeIds != null && starts != null && ends != null : "Types, type ids and offsets are required";
+            assert typeIds.length == starts.length && starts.length == ends.length : "Type ids and offsets must have the same length";
+
+            int count = starts.length;
+            withCapacity(annotations.size() + count);
+            NodeTable nodes = nodes();
+            synchronized (nodes) {
+                for (int i = 0; i < count; i++) {
+                    assert starts[i] <= ends[i] : "Start offset must not be after end offset";
+
+                    Node start = nodes.intern(starts[i]);
+                    Node end = nodes.intern(ends[i]);
+                    FeatureMap featureMap = features != null ? features.apply(i) : null;
+
+                    annotations.add(new MockedAnnotation(nodes.nextAnnotationId(), start, end, types[typeIds[i]], featureMap));
+                }
+            }
+            return this;
+        }
+
+        /**
+         * The {@link NodeTable} of the document, resolved once the first capacity or annotation is added
+         */
+        private NodeTable nodes() {
+            assert document != null : "Supply the document before adding capacity or annotations";
+            if (nodes == null) {
+                nodes = NodeTable.of(document);
+            }
+            return nodes;
+        }
+
         /**
          * Construct a GATE-compliance {@link AnnotationSet} from your collections of {@link Annotation}
          *
          * @return the {@link AnnotationSet}
          */
         public AnnotationSet mock() {
+            return mockSet();
+        }
+
+        /**
+         * Construct a {@link MockedAnnotationSet} from your collections of {@link Annotation},
+         * exposing the nearest-neighbour and adjacency queries on top of {@link AnnotationSet}
+         *
+         * @return the {@link MockedAnnotationSet}
+         */
+        public MockedAnnotationSet mockSet() {
             assert document != null : "Need a mocked Document object please";
 
             return new MockedAnnotationSet(document, annotations);
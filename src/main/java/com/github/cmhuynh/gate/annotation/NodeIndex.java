@@ -0,0 +1,73 @@
+package com.github.cmhuynh.gate.annotation;
+
+import gate.Annotation;
+import gate.Node;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Internal index of the distinct start and end {@link Node} of a set of {@link Annotation} in offset order,
+ * answering node navigation by binary search over a primitive offset array
+ *
+ * @author Chau Huynh cmhuynh at gmail.com
+ */
+class NodeIndex {
+    private final long[] offsets;
+    private final Node[] nodes;
+
+    NodeIndex(Collection<Annotation> annotations) {
+        Node[] all = new Node[annotations.size() * 2];
+        int i = 0;
+        for (Annotation annotation : annotations) {
+            all[i++] = annotation.getStartNode();
+            all[i++] = annotation.getEndNode();
+        }
+        Arrays.sort(all, Comparator.comparingLong(Node::getOffset));
+
+        int distinct = 0;
+        for (Node node : all) {
+            if (distinct == 0 || all[distinct - 1].getOffset().longValue() != node.getOffset().longValue()) {
+                all[distinct++] = node;
+            }
+        }
+        nodes = Arrays.copyOf(all, distinct);
+        offsets = new long[distinct];
+        for (int j = 0; j < distinct; j++) {
+            offsets[j] = nodes[j].getOffset();
+        }
+    }
+
+    /**
+     * @return the node with the smallest offset, or <code>null</code> if there is none
+     */
+    Node first() {
+        return nodes.length > 0 ? nodes[0] : null;
+    }
+
+    /**
+     * @return the node with the largest offset, or <code>null</code> if there is none
+     */
+    Node last() {
+        return nodes.length > 0 ? nodes[nodes.length - 1] : null;
+    }
+
+    /**
+     * @param offset the offset
+     * @return the node with the smallest offset greater than the given one, or <code>null</code> if there is none
+     */
+    Node next(long offset) {
+        int low = 0;
+        int high = offsets.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (offsets[mid] <= offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < nodes.length ? nodes[low] : null;
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.cmhuynh.gate.annotation;
+
+import gate.Document;
+import gate.Node;
+import gate.annotation.NodeImpl;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Internal table of {@link Node} of a {@link Document}, interning exactly one node per offset.
+ * The same node is shared by annotations starting and ending at that offset, and by every mocked
+ * {@link gate.AnnotationSet} built for the same document, as GATE does with its own offset index
+ * <p>
+ * The table keeps every offset ever interned for its document, across all the sets built for it, for as long as the
+ * document is reachable. Use a fresh mocked document per test, or per large fixture, to release its nodes
+ * <p>
+ * The table is not thread-safe, callers synchronize on it
+ *
+ * @author Chau Huynh cmhuynh at gmail.com
+ */
+class NodeTable {
+    /**
+     * Node tables by {@link Document}, held as long as the document is reachable and released together with it
+     */
+    private static final Map<Document, NodeTable> TABLES = new WeakHashMap<>();
+
+    private final OffsetNodeMap nodesByOffset = new OffsetNodeMap(0);
+    /**
+     * Next id of the {@link Node} and of the bulk-loaded {@link gate.Annotation} of the document.
+     * Node ids are unique per document as in GATE, annotation ids only among bulk-loaded annotations,
+     * since annotations added one by one keep the id of the caller
+     */
+    private int nextNodeId;
+    private int nextAnnotationId;
+
+    /**
+     * Get the table shared by every mocked {@link gate.AnnotationSet} of the given {@link Document}
+     *
+     * @param document the document
+     * @return the node table of the document
+     */
+    static NodeTable of(Document document) {
+        synchronized (TABLES) {
+            return TABLES.computeIfAbsent(document, d -> new NodeTable());
+        }
+    }
+
+    /**
+     * Get the {@link Node} at the given offset, creating it with a fresh id of the document if the offset is new.
+     * Nodes of the caller are never stored as is, since their ids may clash with the ids of the document
+     *
+     * @param offset the offset
+     * @return the interned node at the offset
+     */
+    Node intern(long offset) {
+        return nodesByOffset.computeIfAbsent(offset, this::newNode);
+    }
+
+    /**
+     * Make room for at least <code>expectedSize</code> more distinct offsets
+     *
+     * @param expectedSize number of distinct offsets expected to be added
+     */
+    void ensureCapacity(int expectedSize) {
+        nodesByOffset.ensureCapacity(nodesByOffset.size() + expectedSize);
+    }
+
+    /**
+     * @return a fresh {@link gate.Annotation} id of the document
+     */
+    int nextAnnotationId() {
+        return nextAnnotationId++;
+    }
+
+    int size() {
+        return nodesByOffset.size();
+    }
+
+    private Node newNode(long offset) {
+        return new NodeImpl(nextNodeId++, offset);
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.cmhuynh.gate.annotation;
+
+import gate.Annotation;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Internal index of {@link Annotation} sorted by start offset and by end offset,
+ * answering nearest-neighbour and adjacency queries by binary search over primitive offset arrays
+ *
+ * @author Chau Huynh cmhuynh at gmail.com
+ */
+class OffsetIndex {
+    private final long[] starts;
+    private final Annotation[] byStart;
+    private final long[] ends;
+    private final Annotation[] byEnd;
+
+    OffsetIndex(Collection<Annotation> annotations) {
+        byStart = annotations.toArray(new Annotation[annotations.size()]);
+        byEnd = byStart.clone();
+        Arrays.sort(byStart, Comparator.comparingLong(annotation -> annotation.getStartNode().getOffset()));
+        Arrays.sort(byEnd, Comparator.comparingLong(annotation -> annotation.getEndNode().getOffset()));
+
+        starts = new long[byStart.length];
+        ends = new long[byEnd.length];
+        for (int i = 0; i < byStart.length; i++) {
+            starts[i] = byStart[i].getStartNode().getOffset();
+            ends[i] = byEnd[i].getEndNode().getOffset();
+        }
+    }
+
+    /**
+     * @return index of the first element not less than <code>offset</code>
+     */
+    private static int lowerBound(long[] offsets, long offset) {
+        int low = 0;
+        int high = offsets.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (offsets[mid] < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return index of the first element greater than <code>offset</code>
+     */
+    private static int upperBound(long[] offsets, long offset) {
+        return offset == Long.MAX_VALUE ? offsets.length : lowerBound(offsets, offset + 1);
+    }
+
+    private static List<Annotation> range(Annotation[] annotations, int from, int to) {
+        return from < to ? Arrays.asList(annotations).subList(from, to) : emptyList();
+    }
+
+    /**
+     * @param offset the offset
+     * @return annotations starting exactly at the offset
+     */
+    List<Annotation> startingAt(long offset) {
+        return range(byStart, lowerBound(starts, offset), upperBound(starts, offset));
+    }
+
+    /**
+     * @param offset the offset
+     * @return annotations ending exactly at the offset
+     */
+    List<Annotation> endingAt(long offset) {
+        return range(byEnd, lowerBound(ends, offset), upperBound(ends, offset));
+    }
+
+    /**
+     * @param offset      the offset
+     * @param maxDistance the maximum distance from the offset to the start of the annotations
+     * @return annotations with the nearest start at or after the offset
+     */
+    List<Annotation> following(long offset, long maxDistance) {
+        int from = lowerBound(starts, offset);
+        if (from == starts.length || starts[from] - offset > maxDistance) {
+            return emptyList();
+        }
+        return range(byStart, from, upperBound(starts, starts[from]));
+    }
+
+    /**
+     * @param offset      the offset
+     * @param maxDistance the maximum distance from the end of the annotations to the offset
+     * @return annotations with the nearest end at or before the offset
+     */
+    List<Annotation> preceding(long offset, long maxDistance) {
+        int to = upperBound(ends, offset);
+        if (to == 0 || offset - ends[to - 1] > maxDistance) {
+            return emptyList();
+        }
+        return range(byEnd, lowerBound(ends, ends[to - 1]), to);
+    }
+}
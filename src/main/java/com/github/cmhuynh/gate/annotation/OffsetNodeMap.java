@@ -0,0 +1,132 @@
+package com.github.cmhuynh.gate.annotation;
+
+import gate.Node;
+
+import java.util.function.LongFunction;
+
+/**
+ * Internal open-addressing map of offset and {@link Node}, keyed by primitive <code>long</code>
+ * so that interning nodes while building a mocked {@link gate.AnnotationSet} does not box every offset
+ *
+ * @author Chau Huynh cmhuynh at gmail.com
+ */
+class OffsetNodeMap {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] offsets;
+    private Node[] nodes;
+    private int size;
+    private int mask;
+    private int bits;
+
+    /**
+     * @param expectedSize number of distinct offsets expected, used to presize the table
+     */
+    OffsetNodeMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2L && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private void allocate(int capacity) {
+        offsets = new long[capacity];
+        nodes = new Node[capacity];
+        mask = capacity - 1;
+        bits = Integer.numberOfTrailingZeros(capacity);
+    }
+
+    /**
+     * Fibonacci hashing: take the top bits of the offset times the golden ratio, which spreads
+     * dense offset ranges evenly whatever bits they share, so that linear probing keeps short runs
+     */
+    private int hash(long offset) {
+        return (int) ((offset * 0x9E3779B97F4A7C15L) >>> (64 - bits));
+    }
+
+    private int slot(long offset) {
+        int index = hash(offset);
+        while (nodes[index] != null && offsets[index] != offset) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /**
+     * @param offset the offset
+     * @return the {@link Node} at the given offset, or <code>null</code> if there is none
+     */
+    Node get(long offset) {
+        return nodes[slot(offset)];
+    }
+
+    /**
+     * Associate the {@link Node} with the given offset unless one is already present
+     *
+     * @param offset the offset
+     * @param node   the node
+     * @return the node which is now associated with the offset
+     */
+    Node putIfAbsent(long offset, Node node) {
+        return computeIfAbsent(offset, absent -> node);
+    }
+
+    /**
+     * Get the {@link Node} at the given offset, creating it with <code>factory</code> if there is none
+     *
+     * @param offset  the offset
+     * @param factory creates the node for an offset which is not yet mapped
+     * @return the node which is now associated with the offset
+     */
+    Node computeIfAbsent(long offset, LongFunction<Node> factory) {
+        int index = slot(offset);
+        if (nodes[index] != null) {
+            return nodes[index];
+        }
+        Node node = factory.apply(offset);
+        offsets[index] = offset;
+        nodes[index] = node;
+        if (++size * 2 > nodes.length) {
+            grow();
+        }
+        return node;
+    }
+
+    /**
+     * Make room for at least <code>expectedSize</code> distinct offsets without rehashing
+     *
+     * @param expectedSize number of distinct offsets expected
+     */
+    void ensureCapacity(int expectedSize) {
+        int capacity = capacityFor(expectedSize);
+        if (capacity > nodes.length) {
+            rehash(capacity);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        rehash(nodes.length << 1);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldOffsets = offsets;
+        Node[] oldNodes = nodes;
+        allocate(capacity);
+        for (int i = 0; i < oldNodes.length; i++) {
+            if (oldNodes[i] != null) {
+                int index = slot(oldOffsets[i]);
+                offsets[index] = oldOffsets[i];
+                nodes[index] = oldNodes[i];
+            }
+        }
+    }
+}
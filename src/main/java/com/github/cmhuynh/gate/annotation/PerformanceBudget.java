@@ -0,0 +1,419 @@
+package com.github.cmhuynh.gate.annotation;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A JUnit {@link TestRule} failing a test which runs over its performance budget on a mocked fixture,
+ * so that code under test getting algorithmically slower is caught as well as code getting wrong
+ * <p>
+ * Each test is run a number of warm-up times, then measured a number of repetitions on the test thread for
+ * <ul>
+ * <li>the wall time, asserted on the median of the repetitions</li>
+ * <li>the bytes allocated by the thread, as reported by {@link com.sun.management.ThreadMXBean}, asserted on the median</li>
+ * <li>the queries answered by {@link MockedAnnotationSet}, asserted on the maximum</li>
+ * </ul>
+ * The rule runs the test together with its <code>@Before</code> and <code>@After</code> methods, so build large fixtures
+ * in <code>@BeforeClass</code> to keep them out of the measurement
+ * <p>
+ * Use {@link Builder} to declare the budget of all tests, and {@link Budget} to override it on a single test
+ *
+ * @author Chau Huynh cmhuynh at gmail.com
+ */
+public class PerformanceBudget implements TestRule {
+    /**
+     * Value of a budget which is not asserted
+     */
+    public static final long UNLIMITED = -1;
+
+    /**
+     * Override the budget declared by the {@link PerformanceBudget} rule for a single test
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.METHOD)
+    public @interface Budget {
+        /**
+         * @return number of warm-up runs, or a negative value to keep the rule's
+         */
+        int warmUps() default -1;
+
+        /**
+         * @return number of measured runs, or a non-positive value to keep the rule's
+         */
+        int repetitions() default -1;
+
+        /**
+         * @return maximum median wall time in milliseconds, or a negative value to keep the rule's
+         */
+        long wallTimeMillis() default -1;
+
+        /**
+         * @return maximum median allocated bytes, or a negative value to keep the rule's
+         */
+        long allocatedBytes() default -1;
+
+        /**
+         * @return maximum number of queries, or a negative value to keep the rule's
+         */
+        long queries() default -1;
+    }
+
+    private final int warmUps;
+    private final int repetitions;
+    private final long wallTimeNanos;
+    private final long allocatedBytes;
+    private final long queries;
+    private final Path report;
+
+    private Measurement lastMeasurement;
+
+    private PerformanceBudget(Builder builder) {
+        this.warmUps = builder.warmUps;
+        this.repetitions = builder.repetitions;
+        this.wallTimeNanos = builder.wallTimeNanos;
+        this.allocatedBytes = builder.allocatedBytes;
+        this.queries = builder.queries;
+        this.report = builder.report;
+    }
+
+    /**
+     * Get {@link Builder} to help declare the {@link PerformanceBudget}
+     *
+     * @return the builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the {@link Measurement} of the last test run by this rule, or <code>null</code> if there is none
+     */
+    public Measurement getLastMeasurement() {
+        return lastMeasurement;
+    }
+
+    @Override
+    public Statement apply(Statement base, Description description) {
+        Optional<Budget> budget = Optional.ofNullable(description.getAnnotation(Budget.class));
+        int warmUps = budget.map(Budget::warmUps).filter(value -> value >= 0).orElse(this.warmUps);
+        int repetitions = budget.map(Budget::repetitions).filter(value -> value > 0).orElse(this.repetitions);
+        long wallTimeNanos = budget.map(Budget::wallTimeMillis).filter(value -> value >= 0)
+                .map(TimeUnit.MILLISECONDS::toNanos).orElse(this.wallTimeNanos);
+        long allocatedBytes = budget.map(Budget::allocatedBytes).filter(value -> value >= 0).orElse(this.allocatedBytes);
+        long queries = budget.map(Budget::queries).filter(value -> value >= 0).orElse(this.queries);
+
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                for (int i = 0; i < warmUps; i++) {
+                    base.evaluate();
+                }
+
+                long[] wallTimes = new long[repetitions];
+                long[] allocations = new long[repetitions];
+                long[] queryCounts = new long[repetitions];
+                for (int i = 0; i < repetitions; i++) {
+                    long startBytes = threadAllocatedBytes();
+                    long startQueries = QueryCounter.get();
+                    long startTime = System.nanoTime();
+                    base.evaluate();
+                    wallTimes[i] = System.nanoTime() - startTime;
+                    queryCounts[i] = QueryCounter.get() - startQueries;
+                    allocations[i] = startBytes < 0 ? UNLIMITED : threadAllocatedBytes() - startBytes;
+                }
+
+                Measurement measurement = new Measurement(description.getDisplayName(), repetitions,
+                        median(wallTimes), min(wallTimes), max(wallTimes), median(allocations), max(queryCounts),
+                        wallTimeNanos, allocatedBytes, queries);
+                lastMeasurement = measurement;
+                if (report != null) {
+                    write(report, measurement);
+                }
+                measurement.assertWithinBudget();
+            }
+        };
+    }
+
+    /**
+     * @return bytes allocated by the current thread so far, or {@link #UNLIMITED} if the JVM cannot tell
+     */
+    static long threadAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (sunThreadMXBean.isThreadAllocatedMemorySupported() && sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+                return sunThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return UNLIMITED;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static long min(long[] values) {
+        return Arrays.stream(values).min().orElse(0);
+    }
+
+    private static long max(long[] values) {
+        return Arrays.stream(values).max().orElse(0);
+    }
+
+    private static synchronized void write(Path report, Measurement measurement) {
+        try {
+            Path parent = report.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.write(report, (measurement.toJson() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write performance report " + report, e);
+        }
+    }
+
+    /**
+     * What a test consumed over its measured repetitions, against its budget
+     */
+    public static class Measurement {
+        private final String test;
+        private final int repetitions;
+        private final long wallTimeNanos;
+        private final long minWallTimeNanos;
+        private final long maxWallTimeNanos;
+        private final long allocatedBytes;
+        private final long queries;
+        private final long wallTimeNanosBudget;
+        private final long allocatedBytesBudget;
+        private final long queriesBudget;
+
+        Measurement(String test, int repetitions,
+                    long wallTimeNanos, long minWallTimeNanos, long maxWallTimeNanos, long allocatedBytes, long queries,
+                    long wallTimeNanosBudget, long allocatedBytesBudget, long queriesBudget) {
+            this.test = test;
+            this.repetitions = repetitions;
+            this.wallTimeNanos = wallTimeNanos;
+            this.minWallTimeNanos = minWallTimeNanos;
+            this.maxWallTimeNanos = maxWallTimeNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.queries = queries;
+            this.wallTimeNanosBudget = wallTimeNanosBudget;
+            this.allocatedBytesBudget = allocatedBytesBudget;
+            this.queriesBudget = queriesBudget;
+        }
+
+        public String getTest() {
+            return test;
+        }
+
+        /**
+         * @return median wall time of the measured repetitions in nanoseconds
+         */
+        public long getWallTimeNanos() {
+            return wallTimeNanos;
+        }
+
+        /**
+         * @return median bytes allocated by the test thread, or {@link PerformanceBudget#UNLIMITED} if the JVM cannot tell
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        /**
+         * @return maximum number of {@link MockedAnnotationSet} queries of the measured repetitions
+         */
+        public long getQueries() {
+            return queries;
+        }
+
+        /**
+         * A declared allocation budget which the JVM cannot measure is reported as a violation rather than passing unchecked
+         *
+         * @return the exceeded budgets, empty if the test is within its budget
+         */
+        public List<String> getViolations() {
+            List<String> violations = new ArrayList<>();
+            if (wallTimeNanosBudget >= 0 && wallTimeNanos > wallTimeNanosBudget) {
+                violations.add(String.format("wall time %.3f ms exceeds budget %.3f ms",
+                        wallTimeNanos / 1e6, wallTimeNanosBudget / 1e6));
+            }
+            if (allocatedBytesBudget >= 0 && allocatedBytes < 0) {
+                violations.add(String.format("allocation budget %d bytes is not enforced, the JVM does not report thread allocation",
+                        allocatedBytesBudget));
+            } else if (allocatedBytesBudget >= 0 && allocatedBytes > allocatedBytesBudget) {
+                violations.add(String.format("allocated %d bytes exceeds budget %d bytes",
+                        allocatedBytes, allocatedBytesBudget));
+            }
+            if (queriesBudget >= 0 && queries > queriesBudget) {
+                violations.add(String.format("%d queries exceeds budget %d queries", queries, queriesBudget));
+            }
+            return violations;
+        }
+
+        void assertWithinBudget() {
+            List<String> violations = getViolations();
+            if (!violations.isEmpty()) {
+                throw new AssertionError(test + " is over its performance budget: " + String.join(", ", violations));
+            }
+        }
+
+        /**
+         * @return this measurement as a single line JSON object, for trend tracking
+         */
+        public String toJson() {
+            return "{\"test\":\"" + escape(test) + '"'
+                    + ",\"repetitions\":" + repetitions
+                    + ",\"wallTimeNanos\":" + wallTimeNanos
+                    + ",\"minWallTimeNanos\":" + minWallTimeNanos
+                    + ",\"maxWallTimeNanos\":" + maxWallTimeNanos
+                    + ",\"allocatedBytes\":" + allocatedBytes
+                    + ",\"queries\":" + queries
+                    + ",\"wallTimeNanosBudget\":" + wallTimeNanosBudget
+                    + ",\"allocatedBytesBudget\":" + allocatedBytesBudget
+                    + ",\"allocatedBytesEnforced\":" + (allocatedBytesBudget < 0 || allocatedBytes >= 0)
+                    + ",\"queriesBudget\":" + queriesBudget
+                    + ",\"withinBudget\":" + getViolations().isEmpty()
+                    + '}';
+        }
+
+        /**
+         * Escape a JSON string as RFC 8259 requires, so that a test name with a line break keeps the report one object per line
+         */
+        private static String escape(String value) {
+            StringBuilder escaped = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    escaped.append('\\').append(c);
+                } else if (c < 0x20) {
+                    escaped.append(String.format("\\u%04x", (int) c));
+                } else {
+                    escaped.append(c);
+                }
+            }
+            return escaped.toString();
+        }
+
+        @Override
+        public String toString() {
+            return toJson();
+        }
+    }
+
+    /**
+     * Builder to help declare your {@link PerformanceBudget}
+     */
+    public static class Builder {
+        private int warmUps = 1;
+        private int repetitions = 3;
+        private long wallTimeNanos = UNLIMITED;
+        private long allocatedBytes = UNLIMITED;
+        private long queries = UNLIMITED;
+        private Path report;
+
+        private Builder() {
+        }
+
+        /**
+         * Number of runs before measuring, letting the JIT compile the code under test
+         *
+         * @param warmUps the number of warm-up runs
+         * @return the builder
+         */
+        public Builder withWarmUps(int warmUps) {
+            assert warmUps >= 0 : "Warm-ups must not be negative";
+            this.warmUps = warmUps;
+            return this;
+        }
+
+        /**
+         * Number of measured runs, the budget is asserted on their median
+         *
+         * @param repetitions the number of measured runs
+         * @return the builder
+         */
+        public Builder withRepetitions(int repetitions) {
+            assert repetitions > 0 : "At least one repetition is required";
+            this.repetitions = repetitions;
+            return this;
+        }
+
+        /**
+         * Maximum median wall time of a test
+         *
+         * @param wallTime the wall time
+         * @param unit     the unit of the wall time
+         * @return the builder
+         */
+        public Builder withMaxWallTime(long wallTime, TimeUnit unit) {
+            this.wallTimeNanos = unit.toNanos(wallTime);
+            return this;
+        }
+
+        /**
+         * Maximum median bytes allocated by the test thread
+         *
+         * @param allocatedBytes the allocated bytes
+         * @return the builder
+         */
+        public Builder withMaxAllocatedBytes(long allocatedBytes) {
+            this.allocatedBytes = allocatedBytes;
+            return this;
+        }
+
+        /**
+         * Maximum number of queries to {@link MockedAnnotationSet} by the test thread,
+         * including queries chained on the result of a query, e.g. <code>set.get(type).get(start, end)</code> counts 2
+         *
+         * @param queries the number of queries
+         * @return the builder
+         */
+        public Builder withMaxQueries(long queries) {
+            this.queries = queries;
+            return this;
+        }
+
+        /**
+         * Append a JSON line of each {@link Measurement} to the report file, e.g. <code>target/performance-budget.jsonl</code>
+         *
+         * @param report the report file
+         * @return the builder
+         */
+        public Builder withReport(Path report) {
+            this.report = report;
+            return this;
+        }
+
+        /**
+         * Build the {@link PerformanceBudget} rule
+         *
+         * @return the rule
+         */
+        public PerformanceBudget build() {
+            return new PerformanceBudget(this);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.cmhuynh.gate.annotation;
+
+/**
+ * Internal per-thread count of the queries answered by mocked {@link gate.AnnotationSet},
+ * read by {@link PerformanceBudget} to catch code which queries its annotations more often than it should
+ *
+ * @author Chau Huynh cmhuynh at gmail.com
+ */
+final class QueryCounter {
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    private QueryCounter() {
+    }
+
+    static void increment() {
+        COUNT.get()[0]++;
+    }
+
+    /**
+     * @return the number of queries answered on the current thread so far
+     */
+    static long get() {
+        return COUNT.get()[0];
+    }
+}
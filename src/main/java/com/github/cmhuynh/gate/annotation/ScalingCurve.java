@@ -0,0 +1,517 @@
+package com.github.cmhuynh.gate.annotation;
+
+import gate.corpora.DocumentImpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.ToDoubleFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A harness to tell how an annotation consumer scales with the number of annotations, which a single fixture cannot tell.
+ * <p>
+ * The consumer is run on {@link MockedAnnotationSet} of geometrically growing sizes with the same distribution of annotations,
+ * then the growth exponent <code>k</code> of its runtime, allocation and queries is fitted by least squares on the log-log curve,
+ * e.g. <code>k = 1</code> for a linear consumer and <code>k = 2</code> for a quadratic one.
+ * The run fails, or warns, when a fitted exponent exceeds its declared bound
+ * <p>
+ * Use {@link Builder} to construct your {@link ScalingCurve}
+ *
+ * @author Chau Huynh cmhuynh at gmail.com
+ */
+public class ScalingCurve {
+    private static final Logger LOGGER = Logger.getLogger(ScalingCurve.class.getName());
+
+    private final IntFunction<MockedAnnotationSet> fixture;
+    private final int fromSize;
+    private final int toSize;
+    private final int growthFactor;
+    private final long warmUpNanos;
+    private final int warmUps;
+    private final int repetitions;
+    private final long timeLimitNanos;
+    private final double maxRuntimeExponent;
+    private final double maxAllocationExponent;
+    private final double maxQueryExponent;
+    private final boolean failOnViolation;
+
+    private ScalingCurve(Builder builder) {
+        this.fixture = builder.fixture != null ? builder.fixture : builder.defaultFixture();
+        this.fromSize = builder.fromSize;
+        this.toSize = builder.toSize;
+        this.growthFactor = builder.growthFactor;
+        this.warmUpNanos = builder.warmUpNanos;
+        this.warmUps = builder.warmUps;
+        this.repetitions = builder.repetitions;
+        this.timeLimitNanos = builder.timeLimitNanos;
+        this.maxRuntimeExponent = builder.maxRuntimeExponent;
+        this.maxAllocationExponent = builder.maxAllocationExponent;
+        this.maxQueryExponent = builder.maxQueryExponent;
+        this.failOnViolation = builder.failOnViolation;
+    }
+
+    /**
+     * Get {@link Builder} to help construct the {@link ScalingCurve}
+     *
+     * @return the builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Run the consumer on every size of the curve, fit its growth exponents and check them against their bounds
+     * <p>
+     * Before each size beyond the first, its cost is projected from the previous size with the runtime exponent fitted
+     * so far, and the size is skipped with all larger ones if the projection exceeds the time limit, so that a quadratic
+     * consumer does not run for hours on the largest fixture. Skipped sizes are listed in the {@link Result}
+     *
+     * @param consumer the annotation consumer under test
+     * @return the fitted curve
+     * @throws AssertionError if a fitted exponent exceeds its bound and the curve fails on violation,
+     *                        otherwise the violation is logged, see {@link Builder#warnOnViolation()}
+     */
+    public Result run(Consumer<MockedAnnotationSet> consumer) {
+        warmUp(consumer, fixture.apply(fromSize));
+
+        List<Point> points = new ArrayList<>();
+        List<Integer> skippedSizes = new ArrayList<>();
+        boolean withinLimit = true;
+        for (long size = fromSize; size <= toSize; size *= growthFactor) {
+            withinLimit = withinLimit && (points.isEmpty() || projectedNanos(points) <= timeLimitNanos);
+            if (withinLimit) {
+                points.add(measure(consumer, fixture.apply((int) size)));
+            } else {
+                skippedSizes.add((int) size);
+            }
+        }
+
+        Result result = new Result(points, skippedSizes,
+                maxRuntimeExponent, maxAllocationExponent, maxQueryExponent);
+        List<String> violations = result.getViolations();
+        if (!violations.isEmpty()) {
+            String message = "Annotation consumer scales beyond its bound: " + String.join(", ", violations) + " " + result;
+            if (failOnViolation) {
+                throw new AssertionError(message);
+            }
+            LOGGER.log(Level.WARNING, message);
+        }
+        return result;
+    }
+
+    /**
+     * Cost of measuring the next size, all its warm-ups and repetitions, extrapolated from the last size measured
+     * with the runtime exponent fitted so far but no less than linear, or quadratic while a single size is measured
+     */
+    private double projectedNanos(List<Point> points) {
+        double fitted = fitExponent(points, point -> point.wallTimeNanos);
+        double exponent = Double.isNaN(fitted) ? 2 : Math.max(1, fitted);
+        long lastWallTimeNanos = points.get(points.size() - 1).wallTimeNanos;
+        return lastWallTimeNanos * Math.pow(growthFactor, exponent) * (warmUps + repetitions);
+    }
+
+    /**
+     * Run the consumer on the smallest size for the warm-up time, otherwise the interpreted first runs
+     * make the smallest sizes look slow and flatten the curve
+     */
+    private void warmUp(Consumer<MockedAnnotationSet> consumer, MockedAnnotationSet annotationSet) {
+        long startTime = System.nanoTime();
+        do {
+            consumer.accept(annotationSet);
+        } while (System.nanoTime() - startTime < warmUpNanos);
+    }
+
+    private Point measure(Consumer<MockedAnnotationSet> consumer, MockedAnnotationSet annotationSet) {
+        for (int i = 0; i < warmUps; i++) {
+            consumer.accept(annotationSet);
+        }
+
+        long wallTimeNanos = Long.MAX_VALUE;
+        long allocatedBytes = Long.MAX_VALUE;
+        long queries = 0;
+        for (int i = 0; i < repetitions; i++) {
+            long startBytes = PerformanceBudget.threadAllocatedBytes();
+            long startQueries = QueryCounter.get();
+            long startTime = System.nanoTime();
+            consumer.accept(annotationSet);
+            wallTimeNanos = Math.min(wallTimeNanos, System.nanoTime() - startTime);
+            queries = Math.max(queries, QueryCounter.get() - startQueries);
+            allocatedBytes = Math.min(allocatedBytes,
+                    startBytes < 0 ? PerformanceBudget.UNLIMITED : PerformanceBudget.threadAllocatedBytes() - startBytes);
+        }
+        return new Point(annotationSet.size(), wallTimeNanos, allocatedBytes, queries);
+    }
+
+    /**
+     * Least squares slope of <code>log(y)</code> over <code>log(size)</code>, the exponent <code>k</code> of <code>y ~ size^k</code>
+     */
+    static double fitExponent(List<Point> points, ToDoubleFunction<Point> y) {
+        int n = points.size();
+        if (n < 2) {
+            return Double.NaN;
+        }
+        double[] logX = new double[n];
+        double[] logY = new double[n];
+        for (int i = 0; i < n; i++) {
+            logX[i] = Math.log(Math.max(1, points.get(i).size));
+            logY[i] = Math.log(Math.max(1, y.applyAsDouble(points.get(i))));
+        }
+        double meanX = Arrays.stream(logX).average().orElse(0);
+        double meanY = Arrays.stream(logY).average().orElse(0);
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < n; i++) {
+            covariance += (logX[i] - meanX) * (logY[i] - meanY);
+            variance += (logX[i] - meanX) * (logX[i] - meanX);
+        }
+        return variance > 0 ? covariance / variance : Double.NaN;
+    }
+
+    /**
+     * What the consumer took on a single size of the curve
+     */
+    public static class Point {
+        private final int size;
+        private final long wallTimeNanos;
+        private final long allocatedBytes;
+        private final long queries;
+
+        Point(int size, long wallTimeNanos, long allocatedBytes, long queries) {
+            this.size = size;
+            this.wallTimeNanos = wallTimeNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.queries = queries;
+        }
+
+        /**
+         * @return the number of annotations
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * @return the minimum wall time of the repetitions in nanoseconds
+         */
+        public long getWallTimeNanos() {
+            return wallTimeNanos;
+        }
+
+        /**
+         * @return the minimum bytes allocated by the consumer thread, or {@link PerformanceBudget#UNLIMITED} if the JVM cannot tell
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        /**
+         * @return the number of {@link MockedAnnotationSet} queries
+         */
+        public long getQueries() {
+            return queries;
+        }
+
+        @Override
+        public String toString() {
+            return "{\"size\":" + size
+                    + ",\"wallTimeNanos\":" + wallTimeNanos
+                    + ",\"allocatedBytes\":" + allocatedBytes
+                    + ",\"queries\":" + queries
+                    + '}';
+        }
+    }
+
+    /**
+     * The measured {@link Point} of the curve and the growth exponents fitted on them
+     */
+    public static class Result {
+        private final List<Point> points;
+        private final List<Integer> skippedSizes;
+        private final double runtimeExponent;
+        private final double allocationExponent;
+        private final double queryExponent;
+        private final double maxRuntimeExponent;
+        private final double maxAllocationExponent;
+        private final double maxQueryExponent;
+
+        Result(List<Point> points, List<Integer> skippedSizes,
+               double maxRuntimeExponent, double maxAllocationExponent, double maxQueryExponent) {
+            this.points = Collections.unmodifiableList(points);
+            this.skippedSizes = Collections.unmodifiableList(skippedSizes);
+            this.runtimeExponent = fitExponent(points, point -> point.wallTimeNanos);
+            boolean allocationKnown = points.stream().allMatch(point -> point.allocatedBytes >= 0);
+            this.allocationExponent = allocationKnown ? fitExponent(points, point -> point.allocatedBytes) : Double.NaN;
+            this.queryExponent = fitExponent(points, point -> point.queries);
+            this.maxRuntimeExponent = maxRuntimeExponent;
+            this.maxAllocationExponent = maxAllocationExponent;
+            this.maxQueryExponent = maxQueryExponent;
+        }
+
+        public List<Point> getPoints() {
+            return points;
+        }
+
+        /**
+         * @return the sizes which were not measured because their projected cost exceeds the time limit, empty if none
+         */
+        public List<Integer> getSkippedSizes() {
+            return skippedSizes;
+        }
+
+        /**
+         * @return the fitted exponent of the wall time, <code>NaN</code> if fewer than two sizes were measured
+         */
+        public double getRuntimeExponent() {
+            return runtimeExponent;
+        }
+
+        /**
+         * @return the fitted exponent of the allocated bytes, <code>NaN</code> if unknown
+         */
+        public double getAllocationExponent() {
+            return allocationExponent;
+        }
+
+        /**
+         * @return the fitted exponent of the number of queries, <code>NaN</code> if fewer than two sizes were measured
+         */
+        public double getQueryExponent() {
+            return queryExponent;
+        }
+
+        /**
+         * @return the exponents exceeding their bound, empty if the consumer scales within its bounds
+         */
+        public List<String> getViolations() {
+            List<String> violations = new ArrayList<>();
+            check(violations, "runtime", runtimeExponent, maxRuntimeExponent);
+            check(violations, "allocation", allocationExponent, maxAllocationExponent);
+            check(violations, "query", queryExponent, maxQueryExponent);
+            return violations;
+        }
+
+        private static void check(List<String> violations, String name, double exponent, double maxExponent) {
+            if (!Double.isNaN(exponent) && exponent > maxExponent) {
+                violations.add(String.format("%s exponent %.2f exceeds bound %.2f", name, exponent, maxExponent));
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("{\"runtimeExponent\":%.3f,\"allocationExponent\":%.3f,\"queryExponent\":%.3f,\"points\":%s,\"skippedSizes\":%s}",
+                    runtimeExponent, allocationExponent, queryExponent, points, skippedSizes);
+        }
+    }
+
+    /**
+     * Builder to help construct your {@link ScalingCurve}
+     */
+    public static class Builder {
+        private DocumentImpl document;
+        private String[] types = {"Token"};
+        private IntFunction<MockedAnnotationSet> fixture;
+        private int fromSize = 1_000;
+        private int toSize = 1_000_000;
+        private int growthFactor = 10;
+        private long warmUpNanos = TimeUnit.MILLISECONDS.toNanos(500);
+        private int warmUps = 1;
+        private int repetitions = 3;
+        private long timeLimitNanos = TimeUnit.SECONDS.toNanos(10);
+        private double maxRuntimeExponent = Double.POSITIVE_INFINITY;
+        private double maxAllocationExponent = Double.POSITIVE_INFINITY;
+        private double maxQueryExponent = Double.POSITIVE_INFINITY;
+        private boolean failOnViolation = true;
+
+        private Builder() {
+        }
+
+        /**
+         * Supply the mocked {@link DocumentImpl} of the default fixture, see {@link MockedAnnotationSet.Builder#withDocument(DocumentImpl)}.
+         * The nodes of the largest fixture stay with the document as long as it is reachable, so do not share it with other tests
+         *
+         * @param document the mocked document
+         * @return the builder
+         */
+        public Builder withDocument(DocumentImpl document) {
+            this.document = document;
+            return this;
+        }
+
+        /**
+         * Types of the default fixture, which lays out adjacent annotations of 1 to 10 characters
+         * with types drawn uniformly at random from a fixed seed, so that every size has the same distribution
+         *
+         * @param types the annotation types
+         * @return the builder
+         */
+        public Builder withTypes(String... types) {
+            assert types.length > 0 : "At least one type is required";
+            this.types = types;
+            return this;
+        }
+
+        /**
+         * Replace the default fixture by your own, building a {@link MockedAnnotationSet} of the given size.
+         * Keep the same distribution of annotations for every size
+         *
+         * @param fixture builds the annotation set of a given size
+         * @return the builder
+         */
+        public Builder withFixture(IntFunction<MockedAnnotationSet> fixture) {
+            this.fixture = fixture;
+            return this;
+        }
+
+        /**
+         * Sizes of the curve, from <code>fromSize</code> annotations multiplied by <code>growthFactor</code> up to <code>toSize</code>
+         *
+         * @param fromSize     the smallest number of annotations
+         * @param toSize       the largest number of annotations
+         * @param growthFactor the ratio between two consecutive sizes
+         * @return the builder
+         */
+        public Builder withSizes(int fromSize, int toSize, int growthFactor) {
+            assert 0 < fromSize && fromSize < toSize : "Sizes must grow";
+            assert growthFactor > 1 : "Growth factor must be greater than 1";
+            this.fromSize = fromSize;
+            this.toSize = toSize;
+            this.growthFactor = growthFactor;
+            return this;
+        }
+
+        /**
+         * Time spent running the consumer on the smallest size before measuring the curve, letting the JIT compile it
+         *
+         * @param warmUpTime the warm-up time
+         * @param unit       the unit of the warm-up time
+         * @return the builder
+         */
+        public Builder withWarmUpTime(long warmUpTime, TimeUnit unit) {
+            this.warmUpNanos = unit.toNanos(warmUpTime);
+            return this;
+        }
+
+        /**
+         * Number of runs before measuring each size
+         *
+         * @param warmUps the number of warm-up runs
+         * @return the builder
+         */
+        public Builder withWarmUps(int warmUps) {
+            assert warmUps >= 0 : "Warm-ups must not be negative";
+            this.warmUps = warmUps;
+            return this;
+        }
+
+        /**
+         * Number of measured runs of each size, the fastest one is kept
+         *
+         * @param repetitions the number of measured runs
+         * @return the builder
+         */
+        public Builder withRepetitions(int repetitions) {
+            assert repetitions > 0 : "At least one repetition is required";
+            this.repetitions = repetitions;
+            return this;
+        }
+
+        /**
+         * Stop growing the fixture once the projected cost of the next size, warm-ups and repetitions included,
+         * exceeds this limit
+         *
+         * @param timeLimit the time limit
+         * @param unit      the unit of the time limit
+         * @return the builder
+         */
+        public Builder withTimeLimit(long timeLimit, TimeUnit unit) {
+            this.timeLimitNanos = unit.toNanos(timeLimit);
+            return this;
+        }
+
+        /**
+         * Upper bound of the fitted runtime exponent, e.g. <code>1.2</code> to accept a linear consumer with some noise
+         *
+         * @param maxRuntimeExponent the bound
+         * @return the builder
+         */
+        public Builder withMaxRuntimeExponent(double maxRuntimeExponent) {
+            this.maxRuntimeExponent = maxRuntimeExponent;
+            return this;
+        }
+
+        /**
+         * Upper bound of the fitted allocation exponent
+         *
+         * @param maxAllocationExponent the bound
+         * @return the builder
+         */
+        public Builder withMaxAllocationExponent(double maxAllocationExponent) {
+            this.maxAllocationExponent = maxAllocationExponent;
+            return this;
+        }
+
+        /**
+         * Upper bound of the fitted exponent of the number of {@link MockedAnnotationSet} queries
+         *
+         * @param maxQueryExponent the bound
+         * @return the builder
+         */
+        public Builder withMaxQueryExponent(double maxQueryExponent) {
+            this.maxQueryExponent = maxQueryExponent;
+            return this;
+        }
+
+        /**
+         * Log a warning rather than failing when a fitted exponent exceeds its bound.
+         * The warning goes to the {@link java.util.logging.Logger} named after {@link ScalingCurve} at level
+         * {@link Level#WARNING}, and the violations are returned by {@link Result#getViolations()} either way
+         *
+         * @return the builder
+         */
+        public Builder warnOnViolation() {
+            this.failOnViolation = false;
+            return this;
+        }
+
+        private IntFunction<MockedAnnotationSet> defaultFixture() {
+            assert document != null : "Need a mocked Document object please";
+
+            String[] types = this.types;
+            DocumentImpl document = this.document;
+            return size -> {
+                Random random = new Random(42);
+                int[] typeIds = new int[size];
+                long[] starts = new long[size];
+                long[] ends = new long[size];
+                long offset = 0;
+                for (int i = 0; i < size; i++) {
+                    typeIds[i] = random.nextInt(types.length);
+                    starts[i] = offset;
+                    offset += 1 + random.nextInt(10);
+                    ends[i] = offset;
+                }
+                return MockedAnnotationSet.builder()
+                        .withDocument(document)
+                        .withCapacity(size)
+                        .addAnnotations(types, typeIds, starts, ends)
+                        .mockSet();
+            };
+        }
+
+        /**
+         * Build the {@link ScalingCurve}
+         *
+         * @return the scaling curve
+         */
+        public ScalingCurve build() {
+            return new ScalingCurve(this);
+        }
+    }
+}
@@ -143,15 +143,19 @@ public class MockedAnnotationSetTest {
     public void test_get_last_node() {
         Long offset = Optional.ofNullable(annotationSet.lastNode()).map(Node::getOffset).orElse(null);
 
-        assertThat(offset, is(60L));
+        assertThat(offset, is(70L));
     }
 
     @Test
     public void test_get_next_node() {
         Node first = annotationSet.firstNode();
-        Long offset = Optional.ofNullable(annotationSet.nextNode(first)).map(Node::getOffset).orElse(null);
+        Node next = annotationSet.nextNode(first);
+        Long offset = Optional.ofNullable(next).map(Node::getOffset).orElse(null);
 
-        assertThat(offset, is(40L));
+        assertThat(offset, is(30L));
+        assertThat(next == annotationSet.get(anno1.getId()).getEndNode(), is(true));
+        assertThat(annotationSet.nextNode(next).getOffset(), is(40L));
+        assertThat(annotationSet.nextNode(annotationSet.lastNode()), is((Node) null));
     }
 
     @Test
@@ -203,4 +207,180 @@ public class MockedAnnotationSetTest {
 
         assertThat(result, is(expected));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test_bulk_load() {
+        FeatureMap features = Factory.newFeatureMap();
+        features.put(featureKey, featureValue);
+        annotationSet = MockedAnnotationSet.builder()
+                .withDocument(document)
+                .withCapacity(3)
+                .addAnnotations(new String[]{type1, type2},
+                        new int[]{0, 1, 0},
+                        new long[]{20, 40, 60},
+                        new long[]{30, 50, 70},
+                        i -> i == 2 ? features : null)
+                .mock();
+
+        assertThat(annotationSet.size(), is(3));
+        assertThat(annotationSet.getAllTypes(), is(new HashSet<>(Arrays.asList(type1, type2))));
+        assertThat(asList(annotationSet.get(type1, 5L, 60L)).get(0).getStartNode().getOffset(), is(20L));
+        assertThat(asList(annotationSet.get(50L)).get(0).getFeatures().get(featureKey), is(featureValue));
+        assertThat(asList(annotationSet.get(type2)).get(0).getFeatures().isEmpty(), is(true));
+    }
+
+    @Test
+    public void test_bulk_load_shares_nodes_by_offset() {
+        annotationSet = MockedAnnotationSet.builder()
+                .withDocument(document)
+                .addAnnotations(new String[]{type1},
+                        new int[]{0, 0},
+                        new long[]{20, 20},
+                        new long[]{30, 40})
+                .mock();
+
+        List<Annotation> actual = annotationSet.inDocumentOrder();
+        assertThat(actual.get(0).getStartNode() == actual.get(1).getStartNode(), is(true));
+        assertThat(actual.get(0).getId().equals(actual.get(1).getId()), is(false));
+    }
+
+    @Test
+    public void test_bulk_load_mixed_with_annotations() {
+        annotationSet = MockedAnnotationSet.builder()
+                .withDocument(document)
+                .addAnnotation(anno1)
+                .addAnnotations(new String[]{type2},
+                        new int[]{0},
+                        new long[]{40},
+                        new long[]{50})
+                .mock();
+
+        assertThat(annotationSet.size(), is(2));
+        assertThat(asList(annotationSet.get(type1)), is(singletonList(anno1)));
+    }
+
+    @Test
+    public void test_nodes_shared_by_start_and_end() {
+        Annotation before = MockedAnnotation.builder()
+                .withType(type1)
+                .withOffset(10, 20)
+                .mock();
+        annotationSet = MockedAnnotationSet.builder()
+                .withDocument(document)
+                .addAnnotations(Arrays.asList(before, anno1))
+                .mock();
+
+        List<Annotation> actual = annotationSet.inDocumentOrder();
+        assertThat(actual.get(0).getEndNode() == actual.get(1).getStartNode(), is(true));
+    }
+
+    @Test
+    public void test_nodes_shared_by_sets_of_document() {
+        AnnotationSet anotherSet = MockedAnnotationSet.builder()
+                .withDocument(document)
+                .addAnnotations(new String[]{type2},
+                        new int[]{0},
+                        new long[]{30},
+                        new long[]{60})
+                .mock();
+
+        Annotation annotation = anotherSet.iterator().next();
+        assertThat(annotation.getStartNode() == annotationSet.get(anno1.getId()).getEndNode(), is(true));
+        assertThat(annotation.getEndNode() == annotationSet.get(anno3.getId()).getStartNode(), is(true));
+    }
+
+    @Test
+    public void test_starting_at_and_ending_at() {
+        MockedAnnotationSet mockedSet = MockedAnnotationSet.builder()
+                .withDocument(document)
+                .addAnnotations(Arrays.asList(anno1, anno2, anno3))
+                .mockSet();
+
+        assertThat(asList(mockedSet.startingAt(type1, 60L)), is(singletonList(anno3)));
+        assertThat(asList(mockedSet.startingAt(type2, 60L)), empty());
+        assertThat(asList(mockedSet.endingAt(type1, 30L)), is(singletonList(anno1)));
+        assertThat(asList(mockedSet.endingAt("unknown type", 30L)), empty());
+    }
+
+    @Test
+    public void test_following() {
+        MockedAnnotationSet mockedSet = MockedAnnotationSet.builder()
+                .withDocument(document)
+                .addAnnotations(Arrays.asList(anno1, anno2, anno3))
+                .mockSet();
+
+        assertThat(asList(mockedSet.following(type1, 30L)), is(singletonList(anno3)));
+        assertThat(asList(mockedSet.following(type1, 20L)), is(singletonList(anno1)));
+        assertThat(asList(mockedSet.following(type1, 30L, 29L)), empty());
+        assertThat(asList(mockedSet.following(type1, 30L, 30L)), is(singletonList(anno3)));
+        assertThat(asList(mockedSet.following(type1, 61L)), empty());
+    }
+
+    @Test
+    public void test_preceding() {
+        MockedAnnotationSet mockedSet = MockedAnnotationSet.builder()
+                .withDocument(document)
+                .addAnnotations(Arrays.asList(anno1, anno2, anno3))
+                .mockSet();
+
+        assertThat(asList(mockedSet.preceding(type1, 60L)), is(singletonList(anno1)));
+        assertThat(asList(mockedSet.preceding(type1, 70L)), is(singletonList(anno3)));
+        assertThat(asList(mockedSet.preceding(type1, 60L, 29L)), empty());
+        assertThat(asList(mockedSet.preceding(type2, 45L)), empty());
+    }
+
+    @Test
+    public void test_following_annotations_sharing_start() {
+        MockedAnnotationSet mockedSet = MockedAnnotationSet.builder()
+                .withDocument(document)
+                .addAnnotations(new String[]{type1},
+                        new int[]{0, 0, 0},
+                        new long[]{10, 20, 20},
+                        new long[]{15, 25, 30})
+                .mockSet();
+
+        List<Annotation> actual = asList(mockedSet.following(type1, 16L));
+        assertThat(actual.size(), is(2));
+        assertThat(actual.get(0).getStartNode().getOffset(), is(20L));
+        assertThat(actual.get(1).getStartNode().getOffset(), is(20L));
+    }
+
+    @Test
+    public void test_ids_unique_per_document() {
+        Annotation foreign = MockedAnnotation.builder()
+                .withType(type1)
+                .withOffset(30, 35)
+                .mock();
+        AnnotationSet set1 = MockedAnnotationSet.builder()
+                .withDocument(document)
+                .addAnnotation(foreign)
+                .addAnnotations(new String[]{type1}, new int[]{0}, new long[]{0}, new long[]{5})
+                .mock();
+        AnnotationSet set2 = MockedAnnotationSet.builder()
+                .withDocument(document)
+                .addAnnotations(new String[]{type1}, new int[]{0}, new long[]{0}, new long[]{5})
+                .mock();
+
+        Annotation bulk1 = set1.get(0L).iterator().next();
+        Annotation bulk2 = set2.iterator().next();
+        assertThat(bulk1.getId().equals(bulk2.getId()), is(false));
+
+        Node foreignStart = set1.get(foreign.getId()).getStartNode();
+        assertThat(foreignStart == foreign.getStartNode(), is(false));
+        assertThat(foreignStart == annotationSet.get(anno1.getId()).getEndNode(), is(true));
+        Set<Integer> nodeIds = new HashSet<>();
+        for (Annotation annotation : Arrays.asList(anno1, anno2, anno3)) {
+            Annotation interned = annotationSet.get(annotation.getId());
+            nodeIds.add(interned.getStartNode().getId());
+            nodeIds.add(interned.getEndNode().getId());
+        }
+        assertThat(nodeIds.size(), is(6));
+    }
+
+    @Test(expected = AssertionError.class)
+    public void test_document_required_before_annotations() {
+        MockedAnnotationSet.builder()
+                .withCapacity(3)
+                .withDocument(document);
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.cmhuynh.gate.annotation;
+
+import gate.Node;
+import gate.corpora.DocumentImpl;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+/**
+ * @author Chau Huynh cmhuynh at gmail.com
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class NodeTableTest {
+    @Mock
+    private DocumentImpl document;
+    @Mock
+    private DocumentImpl anotherDocument;
+
+    @Test
+    public void test_intern_offset() {
+        NodeTable nodes = new NodeTable();
+        Node node = nodes.intern(10L);
+
+        assertThat(node.getOffset(), is(10L));
+        assertThat(nodes.intern(10L), sameInstance(node));
+        assertThat(nodes.size(), is(1));
+    }
+
+    @Test
+    public void test_unique_ids() {
+        NodeTable nodes = new NodeTable();
+
+        assertThat(nodes.intern(10L).getId(), is(0));
+        assertThat(nodes.intern(20L).getId(), is(1));
+        assertThat(nodes.intern(10L).getId(), is(0));
+        assertThat(nodes.nextAnnotationId(), is(0));
+        assertThat(nodes.nextAnnotationId(), is(1));
+    }
+
+    @Test
+    public void test_table_by_document() {
+        assertThat(NodeTable.of(document), sameInstance(NodeTable.of(document)));
+        assertThat(NodeTable.of(document), not(sameInstance(NodeTable.of(anotherDocument))));
+    }
+}
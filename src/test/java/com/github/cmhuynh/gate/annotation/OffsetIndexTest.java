@@ -0,0 +1,56 @@
+package com.github.cmhuynh.gate.annotation;
+
+import gate.Annotation;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsEmptyCollection.empty;
+import static org.hamcrest.collection.IsIterableContainingInAnyOrder.containsInAnyOrder;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * @author Chau Huynh cmhuynh at gmail.com
+ */
+public class OffsetIndexTest {
+    private String type = "type";
+    private Annotation anno1, anno2, anno3;
+    private OffsetIndex index;
+
+    @Before
+    public void setup() {
+        anno1 = MockedAnnotation.builder().withType(type).withOffset(0, 10).mock();
+        anno2 = MockedAnnotation.builder().withType(type).withOffset(10, 20).mock();
+        anno3 = MockedAnnotation.builder().withType(type).withOffset(10, 30).mock();
+        index = new OffsetIndex(Arrays.asList(anno3, anno2, anno1));
+    }
+
+    @Test
+    public void test_starting_at() {
+        assertThat(index.startingAt(10L), containsInAnyOrder(anno2, anno3));
+        assertThat(index.startingAt(5L), empty());
+    }
+
+    @Test
+    public void test_ending_at() {
+        assertThat(index.endingAt(10L), is(singletonList(anno1)));
+        assertThat(index.endingAt(Long.MAX_VALUE), empty());
+    }
+
+    @Test
+    public void test_following() {
+        assertThat(index.following(1L, Long.MAX_VALUE), containsInAnyOrder(anno2, anno3));
+        assertThat(index.following(1L, 8L), empty());
+        assertThat(index.following(11L, Long.MAX_VALUE), empty());
+    }
+
+    @Test
+    public void test_preceding() {
+        assertThat(index.preceding(25L, Long.MAX_VALUE), is(singletonList(anno2)));
+        assertThat(index.preceding(25L, 4L), empty());
+        assertThat(index.preceding(9L, Long.MAX_VALUE), empty());
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.cmhuynh.gate.annotation;
+
+import gate.Node;
+import gate.annotation.NodeImpl;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+/**
+ * @author Chau Huynh cmhuynh at gmail.com
+ */
+public class OffsetNodeMapTest {
+
+    @Test
+    public void test_put_if_absent() {
+        OffsetNodeMap map = new OffsetNodeMap(0);
+        Node node = new NodeImpl(1, 10L);
+
+        assertThat(map.putIfAbsent(10L, node), sameInstance(node));
+        assertThat(map.putIfAbsent(10L, new NodeImpl(2, 10L)), sameInstance(node));
+        assertThat(map.get(10L), sameInstance(node));
+        assertThat(map.get(11L), nullValue());
+        assertThat(map.size(), is(1));
+    }
+
+    @Test
+    public void test_grow() {
+        OffsetNodeMap map = new OffsetNodeMap(0);
+        for (int i = 0; i < 1000; i++) {
+            map.putIfAbsent(i * 7L - 500L, new NodeImpl(i, i * 7L - 500L));
+        }
+
+        assertThat(map.size(), is(1000));
+        for (int i = 0; i < 1000; i++) {
+            assertThat(map.get(i * 7L - 500L).getId(), is(i));
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void test_dense_ranges_sharing_low_bits() {
+        int n = 200_000;
+        long base = 1L << 22;
+        OffsetNodeMap map = new OffsetNodeMap(0);
+        for (int i = 0; i < n; i++) {
+            map.putIfAbsent(i, new NodeImpl(i, (long) i));
+            map.putIfAbsent(base + i, new NodeImpl(n + i, base + i));
+        }
+
+        assertThat(map.size(), is(2 * n));
+        for (int i = 0; i < n; i++) {
+            assertThat(map.get(i).getId(), is(i));
+            assertThat(map.get(base + i).getId(), is(n + i));
+        }
+        assertThat(map.get(base + n), nullValue());
+    }
+}
@@ -0,0 +1,179 @@
+package com.github.cmhuynh.gate.annotation;
+
+import gate.AnnotationSet;
+import gate.corpora.DocumentImpl;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.Description;
+import org.junit.runner.RunWith;
+import org.junit.runners.model.Statement;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Chau Huynh cmhuynh at gmail.com
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PerformanceBudgetTest {
+    @Mock
+    private DocumentImpl document;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private AnnotationSet annotationSet;
+    private AtomicInteger runs = new AtomicInteger();
+
+    @Before
+    public void setup() {
+        annotationSet = MockedAnnotationSet.builder()
+                .withDocument(document)
+                .addAnnotations(new String[]{"type"},
+                        new int[]{0, 0},
+                        new long[]{0, 10},
+                        new long[]{10, 20})
+                .mock();
+    }
+
+    private Statement querying(int queries) {
+        return new Statement() {
+            @Override
+            public void evaluate() {
+                runs.incrementAndGet();
+                for (int i = 0; i < queries; i++) {
+                    annotationSet.get("type");
+                }
+            }
+        };
+    }
+
+    private Description description(String name) throws NoSuchMethodException {
+        return Description.createTestDescription(getClass(), name,
+                getClass().getDeclaredMethod(name).getAnnotations());
+    }
+
+    @Test
+    public void test_within_budget() throws Throwable {
+        PerformanceBudget budget = PerformanceBudget.builder()
+                .withWarmUps(2)
+                .withRepetitions(3)
+                .withMaxQueries(5)
+                .build();
+
+        budget.apply(querying(5), description("test_within_budget")).evaluate();
+
+        assertThat(runs.get(), is(5));
+        assertThat(budget.getLastMeasurement().getQueries(), is(5L));
+        assertThat(budget.getLastMeasurement().getViolations().isEmpty(), is(true));
+    }
+
+    @Test
+    public void test_chained_queries_counted() throws Throwable {
+        PerformanceBudget budget = PerformanceBudget.builder()
+                .withWarmUps(0)
+                .withRepetitions(1)
+                .build();
+        Statement chained = new Statement() {
+            @Override
+            public void evaluate() {
+                annotationSet.get("type")
+                        .get(0L, 20L)
+                        .getCovering("type", 0L, 5L)
+                        .get(0L);
+            }
+        };
+
+        budget.apply(chained, description("test_chained_queries_counted")).evaluate();
+
+        assertThat(budget.getLastMeasurement().getQueries(), is(4L));
+    }
+
+    @Test
+    public void test_over_budget() throws Throwable {
+        PerformanceBudget budget = PerformanceBudget.builder()
+                .withMaxQueries(5)
+                .build();
+
+        try {
+            budget.apply(querying(6), description("test_over_budget")).evaluate();
+            fail("Expected the budget to be exceeded");
+        } catch (AssertionError e) {
+            assertThat(e.getMessage(), containsString("6 queries exceeds budget 5 queries"));
+        }
+    }
+
+    @Test
+    @PerformanceBudget.Budget(warmUps = 0, repetitions = 1, queries = 10)
+    public void test_budget_of_test() throws Throwable {
+        PerformanceBudget budget = PerformanceBudget.builder()
+                .withMaxQueries(5)
+                .build();
+
+        budget.apply(querying(6), description("test_budget_of_test")).evaluate();
+
+        assertThat(runs.get(), is(1));
+    }
+
+    @Test
+    public void test_report() throws Throwable {
+        Path report = folder.getRoot().toPath().resolve("reports/performance-budget.jsonl");
+        PerformanceBudget budget = PerformanceBudget.builder()
+                .withMaxAllocatedBytes(Long.MAX_VALUE)
+                .withReport(report)
+                .build();
+
+        budget.apply(querying(1), description("test_report")).evaluate();
+        budget.apply(querying(2), description("test_report")).evaluate();
+
+        List<String> lines = Files.readAllLines(report, StandardCharsets.UTF_8);
+        assertThat(lines.size(), is(2));
+        assertThat(lines.get(1), containsString("\"queries\":2"));
+        assertThat(lines.get(1), containsString("\"withinBudget\":true"));
+    }
+
+    @Test
+    public void test_allocation_budget_not_enforced() {
+        PerformanceBudget.Measurement measurement = new PerformanceBudget.Measurement("test", 1,
+                10, 10, 10, PerformanceBudget.UNLIMITED, 0,
+                PerformanceBudget.UNLIMITED, 100, PerformanceBudget.UNLIMITED);
+
+        assertThat(measurement.getViolations().size(), is(1));
+        assertThat(measurement.getViolations().get(0), containsString("allocation budget 100 bytes is not enforced"));
+        assertThat(measurement.toJson(), containsString("\"allocatedBytesEnforced\":false"));
+        assertThat(measurement.toJson(), containsString("\"withinBudget\":false"));
+    }
+
+    @Test
+    public void test_allocation_not_measured_without_budget() {
+        PerformanceBudget.Measurement measurement = new PerformanceBudget.Measurement("test", 1,
+                10, 10, 10, PerformanceBudget.UNLIMITED, 0,
+                PerformanceBudget.UNLIMITED, PerformanceBudget.UNLIMITED, PerformanceBudget.UNLIMITED);
+
+        assertThat(measurement.getViolations().isEmpty(), is(true));
+        assertThat(measurement.toJson(), containsString("\"allocatedBytesEnforced\":true"));
+    }
+
+    @Test
+    public void test_report_escapes_test_name() {
+        PerformanceBudget.Measurement measurement = new PerformanceBudget.Measurement("test[a\"b\\c\nd\te]", 1,
+                10, 10, 10, PerformanceBudget.UNLIMITED, 0,
+                PerformanceBudget.UNLIMITED, PerformanceBudget.UNLIMITED, PerformanceBudget.UNLIMITED);
+
+        String json = measurement.toJson();
+        assertThat(json, containsString("\"test\":\"test[a\\\"b\\\\c\\u000ad\\u0009e]\""));
+        assertThat(json.indexOf('\n') < 0 && json.indexOf('\t') < 0, is(true));
+    }
+}
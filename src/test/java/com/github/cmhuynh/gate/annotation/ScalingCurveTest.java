@@ -0,0 +1,193 @@
+package com.github.cmhuynh.gate.annotation;
+
+import gate.Annotation;
+import gate.corpora.DocumentImpl;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsEmptyCollection.empty;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.hamcrest.number.IsCloseTo.closeTo;
+import static org.hamcrest.number.OrderingComparison.greaterThan;
+
+/**
+ * @author Chau Huynh cmhuynh at gmail.com
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ScalingCurveTest {
+    @Mock
+    private DocumentImpl document;
+
+    private static void linear(MockedAnnotationSet annotationSet) {
+        for (Annotation annotation : annotationSet) {
+            annotationSet.following("Token", annotation.getEndNode().getOffset());
+        }
+    }
+
+    private static void quadratic(MockedAnnotationSet annotationSet) {
+        int overlaps = 0;
+        for (Annotation annotation : annotationSet) {
+            for (Annotation other : annotationSet) {
+                if (annotation.overlaps(other)) {
+                    overlaps++;
+                }
+            }
+        }
+        assertThat(overlaps, greaterThan(0));
+    }
+
+    @Test
+    public void test_fit_exponent() {
+        List<ScalingCurve.Point> points = Arrays.asList(
+                new ScalingCurve.Point(10, 100, 10, 1),
+                new ScalingCurve.Point(100, 10_000, 100, 1),
+                new ScalingCurve.Point(1000, 1_000_000, 1000, 1));
+
+        assertThat(ScalingCurve.fitExponent(points, point -> point.getWallTimeNanos()), closeTo(2.0, 1e-9));
+        assertThat(ScalingCurve.fitExponent(points, point -> point.getAllocatedBytes()), closeTo(1.0, 1e-9));
+        assertThat(ScalingCurve.fitExponent(points, point -> point.getQueries()), closeTo(0.0, 1e-9));
+    }
+
+    @Test
+    public void test_linear_consumer() {
+        ScalingCurve.Result result = ScalingCurve.builder()
+                .withDocument(document)
+                .withTypes("Token", "Sentence")
+                .withSizes(1_000, 64_000, 4)
+                .withMaxQueryExponent(1.2)
+                .build()
+                .run(ScalingCurveTest::linear);
+
+        assertThat(result.getPoints().size(), is(4));
+        assertThat(result.getPoints().get(3).getSize(), is(64_000));
+        assertThat(result.getQueryExponent(), closeTo(1.0, 0.01));
+        assertThat(result.getViolations(), empty());
+    }
+
+    @Test
+    public void test_quadratic_consumer() {
+        ScalingCurve scalingCurve = ScalingCurve.builder()
+                .withDocument(document)
+                .withSizes(500, 8_000, 2)
+                .withMaxRuntimeExponent(1.5)
+                .build();
+
+        String message = null;
+        try {
+            scalingCurve.run(ScalingCurveTest::quadratic);
+        } catch (AssertionError e) {
+            message = e.getMessage();
+        }
+        assertThat(message, containsString("runtime exponent"));
+    }
+
+    @Test
+    public void test_warn_on_violation() {
+        List<LogRecord> records = new ArrayList<>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Logger logger = Logger.getLogger(ScalingCurve.class.getName());
+        logger.addHandler(handler);
+        ScalingCurve.Result result;
+        try {
+            result = ScalingCurve.builder()
+                    .withDocument(document)
+                    .withSizes(100, 400, 2)
+                    .withWarmUpTime(0, TimeUnit.MILLISECONDS)
+                    .withMaxQueryExponent(0.5)
+                    .warnOnViolation()
+                    .build()
+                    .run(ScalingCurveTest::linear);
+        } finally {
+            logger.removeHandler(handler);
+        }
+
+        assertThat(result.getQueryExponent(), greaterThan(0.5));
+        assertThat(result.getViolations().size(), is(1));
+        assertThat(records.size(), is(1));
+        assertThat(records.get(0).getLevel(), is(Level.WARNING));
+        assertThat(records.get(0).getMessage(), containsString("query exponent"));
+    }
+
+    @Test
+    public void test_time_limit() {
+        ScalingCurve.Result result = ScalingCurve.builder()
+                .withDocument(document)
+                .withSizes(100, 100_000, 10)
+                .withWarmUpTime(0, TimeUnit.MILLISECONDS)
+                .withTimeLimit(0, TimeUnit.NANOSECONDS)
+                .build()
+                .run(ScalingCurveTest::linear);
+
+        assertThat(result.getPoints().size(), is(1));
+        assertThat(Double.isNaN(result.getRuntimeExponent()), is(true));
+        assertThat(result.getSkippedSizes(), is(Arrays.asList(1_000, 10_000, 100_000)));
+    }
+
+    @Test
+    public void test_projection_keeps_linear_sizes() {
+        ScalingCurve.Result result = ScalingCurve.builder()
+                .withDocument(document)
+                .withSizes(100, 10_000, 10)
+                .withWarmUpTime(0, TimeUnit.MILLISECONDS)
+                .withWarmUps(0)
+                .withRepetitions(1)
+                .withTimeLimit(1, TimeUnit.SECONDS)
+                .build()
+                .run(annotationSet -> sleep(annotationSet.size() / 50));
+
+        assertThat(result.getPoints().size(), is(3));
+        assertThat(result.getSkippedSizes(), is(empty()));
+    }
+
+    @Test
+    public void test_projection_skips_quadratic_sizes() {
+        ScalingCurve.Result result = ScalingCurve.builder()
+                .withDocument(document)
+                .withSizes(100, 10_000, 10)
+                .withWarmUpTime(0, TimeUnit.MILLISECONDS)
+                .withWarmUps(0)
+                .withRepetitions(1)
+                .withTimeLimit(1, TimeUnit.SECONDS)
+                .build()
+                .run(annotationSet -> sleep((long) annotationSet.size() * annotationSet.size() / 10_000));
+
+        assertThat(result.getPoints().size(), is(2));
+        assertThat(result.getPoints().get(1).getSize(), is(1_000));
+        assertThat(result.getSkippedSizes(), is(Arrays.asList(10_000)));
+        assertThat(result.toString(), containsString("\"skippedSizes\":[10000]"));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}